@@ -1,7 +1,8 @@
 package tilesgui;
 
 import java.util.ArrayList;
-import java.util.Collections;
+import java.util.Arrays;
+import java.util.HashMap;
 import java.util.Random;
 
 /**
@@ -10,8 +11,17 @@ import java.util.Random;
  * Unless the board is initialized by the user, the tilesgui.Board class should create a board where the destination pieces are chosen at random.
  */
 public class Board {
-    private ArrayList<Integer> grid = new ArrayList<>();
+    private static final HashMap<Integer, long[]> zobristKeys = new HashMap<>();
+
+    private final byte[] grid;
     private final int dim;
+    private final long[] keys;
+    private int blankIndex;
+    private long hash;
+    private long mirrorHash;
+    private WalkingDistance walkingDistance = null;
+    private int rowDistanceIndex = -1;
+    private int columnDistanceIndex = -1;
 
     /**
      * Test main function that tests constructors
@@ -31,29 +41,156 @@ public class Board {
     Board(int n) {
         dim = n;
         int size = n*n;
+        grid = new byte[size];
         ArrayList<Integer> bag = new ArrayList<>();
         Random randomGenerator = new Random(System.currentTimeMillis());
 
         for(int i = 0; i < size; i++) {
             bag.add(i);
         }
-        while(!bag.isEmpty()) {
+        for(int i = 0; !bag.isEmpty(); i++) {
             int item = randomGenerator.nextInt(bag.size());
-            grid.add(bag.get(item));
+            grid[i] = (byte) (int) bag.get(item);
             bag.remove(item);
         }
+        keys = getZobristKeys(size);
+        initializeHash();
     }
 
     /**
-     * Constructor that creates board from configuration string
+     * Constructor that creates board from configuration string, one base 36 digit per tile so boards up to 6x6 fit.
      * @param configuration
      */
     Board(String configuration) {
-        String[] tiles = configuration.split("");
-        for(String tile : tiles) {
-            grid.add(Integer.parseInt(tile));
+        grid = new byte[configuration.length()];
+        for(int i = 0; i < grid.length; i++) {
+            grid[i] = (byte) Character.digit(configuration.charAt(i), Character.MAX_RADIX);
         }
-        dim = (int)Math.sqrt((double)grid.size());
+        dim = (int)Math.sqrt((double)grid.length);
+        keys = getZobristKeys(grid.length);
+        initializeHash();
+    }
+
+    /**
+     * Copy constructor, copies the tiles and carries over the hashes and heuristic state without recomputing them.
+     * @param other
+     */
+    Board(Board other) {
+        grid = other.grid.clone();
+        dim = other.dim;
+        keys = other.keys;
+        blankIndex = other.blankIndex;
+        hash = other.hash;
+        mirrorHash = other.mirrorHash;
+        walkingDistance = other.walkingDistance;
+        rowDistanceIndex = other.rowDistanceIndex;
+        columnDistanceIndex = other.columnDistanceIndex;
+    }
+
+    /**
+     * Returns the Zobrist keys for boards with size cells, one key per (tile, index) pair. Keys are generated once per
+     * board size from a fixed seed so equal boards always hash equally.
+     * @param size
+     * @return
+     */
+    private static synchronized long[] getZobristKeys(int size) {
+        long[] keys = zobristKeys.get(size);
+        if(keys == null) {
+            keys = new long[size * size];
+            Random randomGenerator = new Random(size);
+            for(int i = 0; i < keys.length; i++) {
+                keys[i] = randomGenerator.nextLong();
+            }
+            zobristKeys.put(size, keys);
+        }
+        return keys;
+    }
+
+    /**
+     * Computes the full Zobrist hashes of the board and its mirror and the blank position from the grid. Afterwards
+     * they are kept up to date by move().
+     */
+    private void initializeHash() {
+        hash = 0;
+        mirrorHash = 0;
+        for(int i = 0; i < grid.length; i++) {
+            hash ^= keys[grid[i] * grid.length + i];
+            mirrorHash ^= keys[Symmetry.mirrorTile(grid[i], dim) * grid.length + Symmetry.mirrorIndex(i, dim)];
+            if(grid[i] == 0) {
+                blankIndex = i;
+            }
+        }
+    }
+
+    /**
+     * Returns the Zobrist hash of the board.
+     * @return
+     */
+    public long getHash() {
+        return hash;
+    }
+
+    /**
+     * Returns the Zobrist hash of the mirrored board, see Symmetry.
+     * @return
+     */
+    public long getMirrorHash() {
+        return mirrorHash;
+    }
+
+    /**
+     * Returns whether the canonical one of the board and its mirror is the mirror, the one with the smaller hash.
+     * @return
+     */
+    public boolean isMirrored() {
+        return mirrorHash < hash;
+    }
+
+    /**
+     * Returns the Zobrist hash of the canonical one of the board and its mirror.
+     * @return
+     */
+    public long getCanonicalHash() {
+        return isMirrored() ? mirrorHash : hash;
+    }
+
+    /**
+     * Returns whether this board and other have the same canonical board. Mirrored tiles are compared in place, so
+     * no mirrored board is built.
+     * @param other
+     * @return
+     */
+    public boolean canonicalEquals(Board other) {
+        if(grid.length != other.grid.length) return false;
+        if(isMirrored() == other.isMirrored()) return Arrays.equals(grid, other.grid);
+        for(int i = 0; i < grid.length; i++) {
+            if(grid[i] != Symmetry.mirrorTile(other.grid[Symmetry.mirrorIndex(i, dim)], dim)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Hashes on the Zobrist hash, so the tile array is only walked by equals() on a collision.
+     * @return
+     */
+    @Override
+    public int hashCode() {
+        return Long.hashCode(hash);
+    }
+
+    /**
+     * Boards are equal if they have the same tiles in the same places.
+     * @param o
+     * @return
+     */
+    @Override
+    public boolean equals(Object o) {
+        if(this == o) return true;
+        if(!(o instanceof Board)) return false;
+        Board other = (Board) o;
+        return hash == other.hash && Arrays.equals(grid, other.grid);
     }
 
     /**
@@ -61,11 +198,11 @@ public class Board {
      * @return
      */
     public String toString() {
-        String ret = "";
-        for(int i = 0; i < grid.size(); i++) {
-            ret += grid.get(i);
+        char[] ret = new char[grid.length];
+        for(int i = 0; i < grid.length; i++) {
+            ret[i] = Character.forDigit(grid[i], Character.MAX_RADIX);
         }
-        return ret;
+        return new String(ret);
     }
 
     /**
@@ -74,18 +211,18 @@ public class Board {
      * @return
      */
     public String toString(int indent) {
-        String ret = "";
-        for(int i = 0; i < grid.size(); i++) {
+        StringBuilder ret = new StringBuilder();
+        for(int i = 0; i < grid.length; i++) {
             if(i % dim == 0) {
-                ret += '\n';
+                ret.append('\n');
                 for(int j = 0; j < indent; j++) {
-                    ret += " ";
+                    ret.append(' ');
                 }
             }
-            ret += (grid.get(i) == 0) ? " " : grid.get(i);
-            ret += " ";
+            ret.append((grid[i] == 0) ? " " : Integer.toString(grid[i]));
+            ret.append(' ');
         }
-        return ret;
+        return ret.toString();
     }
 
     /**
@@ -102,10 +239,10 @@ public class Board {
      */
     public int getValue() {
         int numInversions = 0;
-        for(int i = 0; i < grid.size(); i++) {
-            for(int j = i+1; j < grid.size(); j++){
-                int left = (grid.get(j) == 0) ? grid.size() : grid.get(j);
-                int right = (grid.get(i) == 0) ? grid.size() : grid.get(i);
+        for(int i = 0; i < grid.length; i++) {
+            for(int j = i+1; j < grid.length; j++){
+                int left = (grid[j] == 0) ? grid.length : grid[j];
+                int right = (grid[i] == 0) ? grid.length : grid[i];
 
                 if(left<right) {
                     numInversions++;
@@ -115,38 +252,108 @@ public class Board {
         return numInversions;
     }
 
+    /**
+     * Calculates and returns the walking distance of the board, an admissible heuristic. The table and the row and
+     * column states are looked up once and then kept up to date by move().
+     * @return
+     */
+    public int getWalkingDistance() {
+        if(walkingDistance == null) {
+            walkingDistance = WalkingDistance.getTable(dim);
+            int[][] rowCounts = new int[dim][dim];
+            int[][] columnCounts = new int[dim][dim];
+            for(int i = 0; i < grid.length; i++) {
+                int tile = grid[i];
+                if(tile != 0) {
+                    rowCounts[i / dim][(tile - 1) / dim]++;
+                    columnCounts[i % dim][(tile - 1) % dim]++;
+                }
+            }
+            rowDistanceIndex = walkingDistance.getIndex(rowCounts, blankIndex / dim);
+            columnDistanceIndex = walkingDistance.getIndex(columnCounts, blankIndex % dim);
+        }
+        return walkingDistance.getDistance(rowDistanceIndex) + walkingDistance.getDistance(columnDistanceIndex);
+    }
+
     /**
      * Attempts to move number, returns true if move is successful, false if not.
      * @param move
      * @return
      */
     public boolean move(int move) {
-        ArrayList<Integer> possiblesMoves = getPossibleMoves();
-        if(possiblesMoves.contains(move)) {
-            Collections.swap(grid, grid.indexOf(0), grid.indexOf(move));
+        int tileIndex = getMoveIndex(move);
+        if(tileIndex >= 0) {
+            int size = grid.length;
+            hash ^= keys[move * size + tileIndex] ^ keys[move * size + blankIndex]
+                    ^ keys[blankIndex] ^ keys[tileIndex];
+            int mirrorTile = Symmetry.mirrorTile(move, dim);
+            int mirrorTileIndex = Symmetry.mirrorIndex(tileIndex, dim);
+            int mirrorBlankIndex = Symmetry.mirrorIndex(blankIndex, dim);
+            mirrorHash ^= keys[mirrorTile * size + mirrorTileIndex] ^ keys[mirrorTile * size + mirrorBlankIndex]
+                    ^ keys[mirrorBlankIndex] ^ keys[mirrorTileIndex];
+            if(walkingDistance != null) {
+                updateWalkingDistance(move, tileIndex);
+            }
+            grid[blankIndex] = (byte) move;
+            grid[tileIndex] = 0;
+            blankIndex = tileIndex;
             return true;
         }
         return false;
     }
 
+    /**
+     * Returns the index of tile move if it is next to the blank, or -1 if it can't be moved.
+     * @param move
+     * @return
+     */
+    private int getMoveIndex(int move) {
+        if(blankIndex - dim >= 0 && grid[blankIndex - dim] == move) {
+            return blankIndex - dim;
+        }
+        if(blankIndex + dim < grid.length && grid[blankIndex + dim] == move) {
+            return blankIndex + dim;
+        }
+        if(blankIndex % dim != 0 && grid[blankIndex - 1] == move) {
+            return blankIndex - 1;
+        }
+        if((blankIndex + 1) % dim != 0 && grid[blankIndex + 1] == move) {
+            return blankIndex + 1;
+        }
+        return -1;
+    }
+
+    /**
+     * Moves the walking distance states along with the blank as it swaps with tile at tileIndex.
+     * @param tile
+     * @param tileIndex
+     */
+    private void updateWalkingDistance(int tile, int tileIndex) {
+        int direction = (tileIndex < blankIndex) ? WalkingDistance.UP : WalkingDistance.DOWN;
+        if(tileIndex / dim == blankIndex / dim) {
+            columnDistanceIndex = walkingDistance.getNextIndex(columnDistanceIndex, direction, (tile - 1) % dim);
+        } else {
+            rowDistanceIndex = walkingDistance.getNextIndex(rowDistanceIndex, direction, (tile - 1) / dim);
+        }
+    }
+
     /**
      * Returns an ArrayList of valid moves.
      * @return
      */
     public ArrayList<Integer> getPossibleMoves() {
         ArrayList<Integer> ret = new ArrayList<>();
-        int blankIndex = grid.indexOf(0);
         if(blankIndex - dim >= 0) {
-            ret.add(grid.get(blankIndex - dim));
+            ret.add((int) grid[blankIndex - dim]);
         }
-        if (blankIndex + dim < grid.size()) {
-            ret.add(grid.get(blankIndex + dim));
+        if (blankIndex + dim < grid.length) {
+            ret.add((int) grid[blankIndex + dim]);
         }
         if (blankIndex - 1 >= 0 && blankIndex % dim != 0) {
-            ret.add(grid.get(blankIndex - 1));
+            ret.add((int) grid[blankIndex - 1]);
         }
-        if (blankIndex + 1 < grid.size() && (blankIndex + 1) % dim != 0) {
-            ret.add(grid.get(blankIndex + 1));
+        if (blankIndex + 1 < grid.length && (blankIndex + 1) % dim != 0) {
+            ret.add((int) grid[blankIndex + 1]);
         }
         return ret;
     }
@@ -2,11 +2,13 @@ package tilesgui;
 
 import javafx.animation.*;
 import javafx.beans.value.*;
+import javafx.concurrent.*;
 import javafx.event.*;
 import javafx.fxml.*;
 import javafx.geometry.Bounds;
 import javafx.scene.control.*;
 import javafx.scene.input.*;
+import javafx.scene.layout.*;
 import javafx.scene.shape.*;
 import javafx.util.Duration;
 import java.net.URL;
@@ -16,6 +18,11 @@ import java.util.*;
  * Controller class that controls all of the JavaFX objects and interaction with user.
  */
 public class Controller implements Initializable {
+    /**
+     * Most nodes a solve may keep in memory, enough to exhaust any 3x3 board
+     */
+    private static final int SEARCH_NODE_LIMIT = 500000;
+
     /**
      * State Enums
      */
@@ -30,6 +37,7 @@ public class Controller implements Initializable {
     private Board gameBoard;
     private char[] chosenBoard = new char[9];
     private SearchTree decisionTree;
+    private SpeculativeSolver speculativeSolver;
 
     /**
      * Gui Helper Vars
@@ -37,6 +45,8 @@ public class Controller implements Initializable {
     private int nextFill;
     private int turnNumber;
     private Timeline solver;
+    private Task<Void> solveTask;
+    private SolverMetricsSampler metricsSampler;
     private Rectangle buttonSquare;
     private HashMap<Button, Integer> buttonIndex;
 
@@ -53,6 +63,12 @@ public class Controller implements Initializable {
     private List<Button> buttonList;
     @FXML // fx:id="autoSolve"
     private ToggleButton autoSolve;
+    @FXML // fx:id="showMetrics"
+    private CheckBox showMetrics, speculativeSolving;
+    @FXML // fx:id="metricsOverlay"
+    private VBox metricsOverlay;
+    @FXML // fx:id="metricsLabel"
+    private Label metricsLabel;
 
     /**
      * Event Handlers
@@ -72,6 +88,9 @@ public class Controller implements Initializable {
                     turnNumberLabel.setText(String.format("Turn Number: %d", turnNumber));
                     chosenBoard = gameBoard.toString().toCharArray();
                     Controller.this.updateButtons();
+                } else if (!gameBoard.isSolved() && decisionTree.isLimitReached()) {
+                    currentState = stateType.GAMEPLAY;
+                    Controller.this.alertLimitReached();
                 } else if (!gameBoard.isSolved()) {
                     currentState = stateType.NO_GAME;
                     Controller.this.alertUnsolvable();
@@ -92,14 +111,26 @@ public class Controller implements Initializable {
         public void handle(MouseEvent event) {
             if (currentState == stateType.GAMEPLAY) {
                 currentState = stateType.SELF_SOLVE;
-                SearchTreeNode initialState = new SearchTreeNode(gameBoard.toString(), gameBoard.getValue());
-                decisionTree = new SearchTree(initialState);
-                decisionTree.solve();
                 turnNumber = 0;
                 turnNumberLabel.setText(String.format("Turn Number: %d", turnNumber));
-                solver.play();
+                SpeculativeSolver.Plan plan = speculativeSolver.takePlan(gameBoard);
+                if (plan != null && plan.isReady()) {
+                    decisionTree = plan.getTree();
+                    metricsSampler.start(decisionTree);
+                    metricsSampler.stop();
+                    solver.play();
+                } else if (plan != null) {
+                    decisionTree = plan.getTree();
+                    Controller.this.startSolve(plan);
+                } else {
+                    decisionTree = new SearchTree(gameBoard);
+                    decisionTree.setHeuristic(Heuristic.WALKING_DISTANCE);
+                    decisionTree.setNodeLimit(SEARCH_NODE_LIMIT);
+                    Controller.this.startSolve(null);
+                }
             } else if (currentState == stateType.SELF_SOLVE) {
                 currentState = stateType.GAMEPLAY;
+                Controller.this.cancelSolve();
                 solver.stop();
             } else {
                 autoSolve.setSelected(false);
@@ -124,6 +155,36 @@ public class Controller implements Initializable {
         }
     };
 
+    private ChangeListener<Boolean> showMetricsListener = new ChangeListener<Boolean>() {
+        /**
+         * Listens to when the metrics check box is toggled and shows or hides the metrics overlay.
+         * @param observable
+         * @param oldValue
+         * @param newValue
+         */
+        @Override
+        public void changed(ObservableValue<? extends Boolean> observable, Boolean oldValue, Boolean newValue) {
+            metricsOverlay.setVisible(newValue);
+        }
+    };
+
+    private ChangeListener<Boolean> speculativeSolvingListener = new ChangeListener<Boolean>() {
+        /**
+         * Listens to when the speculative solving check box is toggled and starts or stops background planning.
+         * @param observable
+         * @param oldValue
+         * @param newValue
+         */
+        @Override
+        public void changed(ObservableValue<? extends Boolean> observable, Boolean oldValue, Boolean newValue) {
+            if (newValue && currentState == stateType.GAMEPLAY) {
+                speculativeSolver.restart(gameBoard);
+            } else {
+                speculativeSolver.cancel();
+            }
+        }
+    };
+
     private EventHandler<MouseEvent> gameStartHandler = new EventHandler<MouseEvent>() {
         /**
          * Handles mouse click event for the Start Game button
@@ -137,6 +198,7 @@ public class Controller implements Initializable {
                 if (gameType == gameTypes.CHOOSE_BOARD) {
                     currentState = stateType.BOARD_SELECTION;
                     Controller.this.clearButtons();
+                    speculativeSolver.cancel();
                     nextFill = 0;
                 } else {
                     Controller.this.setupGame();
@@ -182,6 +244,9 @@ public class Controller implements Initializable {
             } else if (currentState == stateType.GAMEPLAY) {
                 int move = Character.getNumericValue(chosenBoard[buttonIndex.get(clicked)]);
                 if (gameBoard.move(move)) {
+                    if (speculativeSolving.isSelected()) {
+                        speculativeSolver.update(gameBoard, move);
+                    }
                     turnNumber++;
                     turnNumberLabel.setText(String.format("Turn Number: %d", turnNumber));
                     chosenBoard = gameBoard.toString().toCharArray();
@@ -217,6 +282,8 @@ public class Controller implements Initializable {
      */
     private void attachHandlers() {
         gameMode.getSelectionModel().selectedIndexProperty().addListener(gameModeListener);
+        showMetrics.selectedProperty().addListener(showMetricsListener);
+        speculativeSolving.selectedProperty().addListener(speculativeSolvingListener);
 
         gameStart.addEventHandler(MouseEvent.MOUSE_CLICKED, gameStartHandler);
         autoSolve.addEventHandler(MouseEvent.MOUSE_CLICKED, autoSolveHandler);
@@ -228,6 +295,81 @@ public class Controller implements Initializable {
 
         solver = new Timeline(new KeyFrame(Duration.millis(300), solverHandler));
         solver.setCycleCount(Timeline.INDEFINITE);
+
+        metricsSampler = new SolverMetricsSampler(metricsLabel);
+        speculativeSolver = new SpeculativeSolver(Heuristic.WALKING_DISTANCE, SEARCH_NODE_LIMIT);
+    }
+
+    /**
+     * Solves decisionTree on a background thread while the metrics sampler watches it, and starts playing the solution
+     * once it is found. If plan is not null, decisionTree is already being solved by the speculative solver and the
+     * background thread waits for it instead.
+     * @param plan
+     */
+    private void startSolve(final SpeculativeSolver.Plan plan) {
+        final SearchTree tree = decisionTree;
+        solveTask = new Task<Void>() {
+            /**
+             * Runs or waits for the search off the FX thread.
+             * @return
+             * @throws Exception
+             */
+            @Override
+            protected Void call() throws Exception {
+                if (plan == null) {
+                    tree.solve();
+                    return null;
+                }
+                try {
+                    plan.await();
+                } catch (InterruptedException e) {
+                    plan.cancel();
+                    throw e;
+                }
+                return null;
+            }
+        };
+        solveTask.setOnSucceeded(new EventHandler<WorkerStateEvent>() {
+            /**
+             * Handles the solve finishing.
+             * @param event
+             */
+            @Override
+            public void handle(WorkerStateEvent event) {
+                metricsSampler.stop();
+                if (currentState == stateType.SELF_SOLVE && decisionTree == tree) {
+                    solver.play();
+                }
+            }
+        });
+        solveTask.setOnFailed(new EventHandler<WorkerStateEvent>() {
+            /**
+             * Handles the solve throwing, returns control to the user.
+             * @param event
+             */
+            @Override
+            public void handle(WorkerStateEvent event) {
+                metricsSampler.stop();
+                if (decisionTree == tree) {
+                    currentState = stateType.GAMEPLAY;
+                    Controller.this.alertSolveFailed(event.getSource().getException());
+                }
+            }
+        });
+        metricsSampler.start(tree);
+        Thread solveThread = new Thread(solveTask, "solver");
+        solveThread.setDaemon(true);
+        solveThread.start();
+    }
+
+    /**
+     * Cancels a solve that has not finished yet.
+     */
+    private void cancelSolve() {
+        if (solveTask != null && solveTask.isRunning()) {
+            solveTask.cancel();
+            metricsSampler.stop();
+        }
     }
 
     /**
@@ -259,6 +401,7 @@ public class Controller implements Initializable {
         gameBoard = new Board(3);
         chosenBoard = gameBoard.toString().toCharArray();
         updateButtons();
+        startSpeculativeSolving();
     }
 
     /**
@@ -270,6 +413,18 @@ public class Controller implements Initializable {
         gameBoard = new Board(configuration);
         chosenBoard = gameBoard.toString().toCharArray();
         updateButtons();
+        startSpeculativeSolving();
+    }
+
+    /**
+     * Starts planning the new game board in the background if speculative solving is enabled.
+     */
+    private void startSpeculativeSolving() {
+        if (speculativeSolving.isSelected() && currentState == stateType.GAMEPLAY) {
+            speculativeSolver.restart(gameBoard);
+        } else {
+            speculativeSolver.cancel();
+        }
     }
 
     /**
@@ -331,6 +486,35 @@ public class Controller implements Initializable {
         alert.show();
     }
 
+    /**
+     * Alerts user that the solver ran out of its node budget and returns the game to the user.
+     */
+    private void alertLimitReached() {
+        solver.stop();
+        autoSolve.setSelected(false);
+        Alert alert = new Alert(Alert.AlertType.INFORMATION);
+        alert.setResizable(false);
+        alert.setTitle("Search Limit Reached!");
+        alert.setHeaderText(null);
+        alert.setContentText("The solver ran out of memory budget before finding a solution, it played the best moves it found.");
+        alert.show();
+    }
+
+    /**
+     * Alerts user that the solver failed with error and returns the game to the user.
+     * @param error
+     */
+    private void alertSolveFailed(Throwable error) {
+        solver.stop();
+        autoSolve.setSelected(false);
+        Alert alert = new Alert(Alert.AlertType.ERROR);
+        alert.setResizable(false);
+        alert.setTitle("Solver Failed!");
+        alert.setHeaderText(null);
+        alert.setContentText(String.format("The solver stopped with an error: %s", error));
+        alert.show();
+    }
+
     /**
      * Creates animation for moving a rectangle button mimic that moves from sourceButton to targetButton in duration
      * milliseconds time.
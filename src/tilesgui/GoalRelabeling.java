@@ -0,0 +1,132 @@
+package tilesgui;
+
+/**
+ * Maps a puzzle with an arbitrary goal onto the standard goal so the same heuristic tables apply.
+ * The goal's blank is first slid to the bottom right corner, right along its row and then down its column. The tiles
+ * are then relabeled so that board reads as the standard goal. The search still runs towards the relabeled real goal,
+ * which is the slide length away from the standard goal, so a heuristic h towards the standard goal gives the
+ * admissible bound max(0, h - slide length) towards the real goal. A path found in relabeled space is translated back
+ * by mapping the labels.
+ */
+public class GoalRelabeling {
+    private final String goalState;
+    private final char[] toCanonical;
+    private final char[] fromCanonical;
+    private final int slideLength;
+
+    /**
+     * Initializes the relabeling for the serialized goal board goalState.
+     * @param goalState
+     * @throws IllegalArgumentException if goalState is not a square board holding every tile exactly once
+     */
+    public GoalRelabeling(String goalState) {
+        validate(goalState);
+        this.goalState = goalState;
+        Board goal = new Board(goalState);
+        int size = goalState.length();
+        int dim = (int) Math.sqrt((double) size);
+
+        int blankIndex = goalState.indexOf('0');
+        slideLength = (dim - 1 - blankIndex % dim) + (dim - 1 - blankIndex / dim);
+        while (blankIndex % dim != dim - 1) {
+            goal.move(Character.digit(goal.toString().charAt(blankIndex + 1), Character.MAX_RADIX));
+            blankIndex++;
+        }
+        while (blankIndex / dim != dim - 1) {
+            goal.move(Character.digit(goal.toString().charAt(blankIndex + dim), Character.MAX_RADIX));
+            blankIndex += dim;
+        }
+
+        String cornerGoal = goal.toString();
+        toCanonical = new char[size];
+        fromCanonical = new char[size];
+        for (int i = 0; i < size; i++) {
+            int tile = Character.digit(cornerGoal.charAt(i), Character.MAX_RADIX);
+            int canonical = (i == size - 1) ? 0 : i + 1;
+            toCanonical[tile] = Character.forDigit(canonical, Character.MAX_RADIX);
+            fromCanonical[canonical] = Character.forDigit(tile, Character.MAX_RADIX);
+        }
+    }
+
+    /**
+     * Checks that goalState is a square board of at least 2x2 that holds every tile and the blank exactly once.
+     * @param goalState
+     */
+    private static void validate(String goalState) {
+        int size = goalState.length();
+        int dim = (int) Math.sqrt((double) size);
+        if (dim < 2 || dim * dim != size) {
+            throw new IllegalArgumentException("Goal board must be square: " + goalState);
+        }
+        boolean[] seen = new boolean[size];
+        for (int i = 0; i < size; i++) {
+            int tile = Character.digit(goalState.charAt(i), Character.MAX_RADIX);
+            if (tile < 0 || tile >= size || seen[tile]) {
+                throw new IllegalArgumentException("Goal board must hold every tile exactly once: " + goalState);
+            }
+            seen[tile] = true;
+        }
+    }
+
+    /**
+     * Returns the serialized goal board.
+     * @return
+     */
+    public String getGoalState() {
+        return goalState;
+    }
+
+    /**
+     * Returns the number of moves the goal's blank slides to reach the bottom right corner, the most moves between the
+     * relabeled real goal and the standard goal.
+     * @return
+     */
+    public int getSlideLength() {
+        return slideLength;
+    }
+
+    /**
+     * Relabels a serialized board into standard goal space.
+     * @param state
+     * @return
+     */
+    public String toCanonical(String state) {
+        return relabel(state, toCanonical);
+    }
+
+    /**
+     * Relabels a serialized board from standard goal space back to the original labels.
+     * @param state
+     * @return
+     */
+    public String fromCanonical(String state) {
+        return relabel(state, fromCanonical);
+    }
+
+    /**
+     * Translates tiles moved in standard goal space back to the original labels.
+     * @param tilesMoved
+     * @return
+     */
+    public byte[] fromCanonical(byte[] tilesMoved) {
+        byte[] ret = new byte[tilesMoved.length];
+        for (int i = 0; i < tilesMoved.length; i++) {
+            ret[i] = (byte) Character.digit(fromCanonical[tilesMoved[i]], Character.MAX_RADIX);
+        }
+        return ret;
+    }
+
+    /**
+     * Replaces every tile of state with its label in labels.
+     * @param state
+     * @param labels
+     * @return
+     */
+    private String relabel(String state, char[] labels) {
+        char[] ret = new char[state.length()];
+        for (int i = 0; i < ret.length; i++) {
+            ret[i] = labels[Character.digit(state.charAt(i), Character.MAX_RADIX)];
+        }
+        return new String(ret);
+    }
+}
@@ -0,0 +1,49 @@
+package tilesgui;
+
+/**
+ * Heuristics the tilesgui.SearchTree can order its boards by. Every heuristic is zero only for the solved board.
+ * Admissible heuristics never overestimate the moves left, so the search adds the path cost and finds shortest paths.
+ */
+public enum Heuristic {
+    /**
+     * Number of inversions, see Board.getValue().
+     */
+    INVERSIONS {
+        @Override
+        public int evaluate(Board board) {
+            return board.getValue();
+        }
+
+        @Override
+        public boolean isAdmissible() {
+            return false;
+        }
+    },
+    /**
+     * Walking distance from precomputed tables, see Board.getWalkingDistance().
+     */
+    WALKING_DISTANCE {
+        @Override
+        public int evaluate(Board board) {
+            return board.getWalkingDistance();
+        }
+
+        @Override
+        public boolean isAdmissible() {
+            return true;
+        }
+    };
+
+    /**
+     * Returns the heuristic value of board.
+     * @param board
+     * @return
+     */
+    public abstract int evaluate(Board board);
+
+    /**
+     * Returns whether the heuristic never overestimates the number of moves left.
+     * @return
+     */
+    public abstract boolean isAdmissible();
+}
@@ -5,69 +5,196 @@ package tilesgui;import java.util.*;
  * heuristic as an approximation of the goodness of each board configuration.
  */
 public class SearchTree {
-    private SearchTreeNode root;
-    private HashSet<String> stateReached = new HashSet<>();
+    private static final int METRICS_INTERVAL = 256;
+
+    private final Board initialBoard;
+    private final String initialState;
     private boolean solvable;
-    private Stack<SearchTreeNode> moves;
+    private Heuristic heuristic = Heuristic.INVERSIONS;
+    private GoalRelabeling goal = null;
+    private int nodeLimit = 0;
+    private boolean limitReached;
+    private boolean pruned;
+    private volatile Solution solution;
+
+    /**
+     * Counters published every METRICS_INTERVAL expansions for samplers on other threads
+     */
+    private volatile int nodesExpanded;
+    private volatile int openSize;
+    private volatile int closedSize;
+
+    /**
+     * Constructs search tree rooted with a copy of initialBoard, so the caller may keep moving its board
+     * @param initialBoard
+     */
+    public SearchTree(Board initialBoard) {
+        this.initialBoard = new Board(initialBoard);
+        this.initialState = initialBoard.toString();
+    }
+
+    /**
+     * Sets the heuristic boards are ordered by, defaults to Heuristic.INVERSIONS. With an admissible heuristic the
+     * search is A* and finds a shortest solution.
+     * @param heuristic
+     */
+    public void setHeuristic(Heuristic heuristic) {
+        this.heuristic = heuristic;
+    }
 
     /**
-     * Constructs search tree rooted with the initialState
-     * @param initialState
+     * Sets the serialized board to solve towards, defaults to the standard goal. The search runs on relabeled boards
+     * so heuristic tables are shared between goals, see GoalRelabeling, and stays shortest with an admissible
+     * heuristic. Unless the goal's blank is in the bottom right corner, mirrored boards are no longer merged.
+     * @param goalState
+     * @throws IllegalArgumentException if goalState is not a valid board of the same size as the initial board
      */
-    public SearchTree(SearchTreeNode initialState) {
-        root = initialState;
-        root.setParent(null);
+    public void setGoal(String goalState) {
+        if (goalState.length() != initialState.length()) {
+            throw new IllegalArgumentException("Goal board " + goalState + " is not the size of " + initialState);
+        }
+        this.goal = new GoalRelabeling(goalState);
     }
 
     /**
-     * Expands SearchTree in order of lowest heuristic until either a solved board is found or all
+     * Bounds the number of nodes kept in the open and closed sets, 0 means unbounded. When the bound is hit the worst
+     * frontier nodes are pruned, and once the closed set alone fills it the search stops with the best path so far.
+     * A search that runs out of nodes after pruning also counts as limited, since a pruned node may have led to the
+     * goal.
+     * @param nodeLimit
+     */
+    public void setNodeLimit(int nodeLimit) {
+        this.nodeLimit = nodeLimit;
+    }
+
+    /**
+     * Expands SearchTree in order of lowest heuristic, plus path cost for admissible heuristics, until either a solved board is found or all
      * possible boards are searched. Stores path to best move in tree for to be retrieved via
-     * nextMove() method
+     * nextMove() method. Stops early with the best path so far if the calling thread is interrupted or the node limit
+     * is reached. The explored nodes are only referenced from this method, so they can be collected once it returns.
      */
     public void solve() {
         solvable = false;
+        limitReached = false;
+        pruned = false;
+        HashSet<SearchTreeNode> stateReached = new HashSet<>();
         PriorityQueue<SearchTreeNode> nodePriorityQueue = new PriorityQueue<>();
+        Board rootConfiguration = (goal == null) ? new Board(initialBoard) : new Board(goal.toCanonical(initialState));
+        Board target = (goal == null || goal.getSlideLength() == 0)
+                ? null : new Board(goal.toCanonical(goal.getGoalState()));
+        int slack = (target == null) ? 0 : goal.getSlideLength();
+        SearchTreeNode root = new SearchTreeNode(rootConfiguration,
+                Math.max(0, heuristic.evaluate(rootConfiguration) - slack), target == null);
 
         nodePriorityQueue.add(root);
         SearchTreeNode bestState = null;
+        int expanded = 0;
         while(!nodePriorityQueue.isEmpty()) {
+            if(++expanded % METRICS_INTERVAL == 0) {
+                publishMetrics(expanded, nodePriorityQueue.size(), stateReached.size());
+                if(Thread.currentThread().isInterrupted()) {
+                    break;
+                }
+            }
             SearchTreeNode n = nodePriorityQueue.poll();
-            bestState = (n.compareTo(bestState) == -1) ? n : bestState;
-            if(n.getValue() == 0) {
+            if(bestState == null || n.getValue() < bestState.getValue()) {
+                bestState = n;
+            }
+            if((target == null) ? n.getValue() == 0 : target.equals(n.getBoard())) {
+                bestState = n;
                 solvable = true;
                 break;
             }
-            if (!stateReached.contains(n.getState())) {
-                stateReached.add(n.getState());
-                Board currConfiguration = new Board(n.getState());
+            if (stateReached.add(n)) {
+                Board currConfiguration = n.getBoard();
                 ArrayList<Integer> possibleMoves = currConfiguration.getPossibleMoves();
                 for (Integer move : possibleMoves) {
-                    currConfiguration.move(move);
-
-                    SearchTreeNode child = new SearchTreeNode(currConfiguration.toString(), currConfiguration.getValue());
+                    Board childConfiguration = new Board(currConfiguration);
+                    childConfiguration.move(move);
 
-                    child.setTileMoved(move);
-                    child.setParent(n);
-                    nodePriorityQueue.add(child);
-                    n.getChildren().add(child);
+                    SearchTreeNode child = new SearchTreeNode(childConfiguration,
+                            Math.max(0, heuristic.evaluate(childConfiguration) - slack), target == null);
 
-                    currConfiguration.move(move);
+                    if (!stateReached.contains(child)) {
+                        child.setTileMoved(move);
+                        child.setParent(n);
+                        if (heuristic.isAdmissible()) {
+                            child.setPriority(child.getValue() + child.getDepth());
+                        }
+                        nodePriorityQueue.add(child);
+                    }
+                }
+                if (nodeLimit > 0 && stateReached.size() + nodePriorityQueue.size() > nodeLimit) {
+                    if (stateReached.size() >= nodeLimit) {
+                        limitReached = true;
+                        break;
+                    }
+                    pruneFrontier(nodePriorityQueue, Math.max(1, (nodeLimit - stateReached.size()) / 2));
                 }
             }
         }
+        if(!solvable && pruned && nodePriorityQueue.isEmpty()) {
+            limitReached = true;
+        }
+        publishMetrics(expanded, nodePriorityQueue.size(), stateReached.size());
         setMoves(bestState);
     }
 
     /**
-     * Stores all the moves from initialState to finalState to be retrieved later via nextMove
+     * Keeps only the keep best nodes of the frontier. Nodes only reference their parents, so dropped nodes can be
+     * collected right away.
+     * @param frontier
+     * @param keep
+     */
+    private void pruneFrontier(PriorityQueue<SearchTreeNode> frontier, int keep) {
+        SearchTreeNode[] nodes = frontier.toArray(new SearchTreeNode[0]);
+        Arrays.sort(nodes);
+        frontier.clear();
+        for (int i = 0; i < nodes.length && i < keep; i++) {
+            frontier.add(nodes[i]);
+        }
+        pruned |= nodes.length > keep;
+    }
+
+    /**
+     * Publishes the search counters so they can be sampled while solve() runs.
+     * @param expanded
+     * @param open
+     * @param closed
+     */
+    private void publishMetrics(int expanded, int open, int closed) {
+        nodesExpanded = expanded;
+        openSize = open;
+        closedSize = closed;
+    }
+
+    /**
+     * Stores all the moves from initialState to finalState in a Solution to be retrieved later via nextMove
      * @param finalState
      */
     private void setMoves(SearchTreeNode finalState) {
-        this.moves = new Stack<>();
-        while(finalState.getParent() != null) {
-            moves.push(finalState);
-            finalState = finalState.getParent();
+        int length = 0;
+        for(SearchTreeNode n = finalState; n.getParent() != null; n = n.getParent()) {
+            length++;
+        }
+        byte[] tilesMoved = new byte[length];
+        for(SearchTreeNode n = finalState; n.getParent() != null; n = n.getParent()) {
+            tilesMoved[--length] = (byte) n.getTileMoved();
         }
+        if(goal == null) {
+            solution = new Solution(tilesMoved, initialState, finalState.getState(), solvable);
+        } else {
+            solution = new Solution(goal.fromCanonical(tilesMoved), initialState,
+                    goal.fromCanonical(finalState.getState()), solvable);
+        }
+    }
+
+    /**
+     * Returns the solution found by solve(), or null while solve() has not finished.
+     * @return
+     */
+    public Solution getSolution() {
+        return solution;
     }
 
     /**
@@ -76,8 +203,16 @@ public class SearchTree {
      */
     public int nextMove() {
         if(!hasNextMove()) return -1;
-        int bestMove = moves.pop().getTileMoved();
-        return bestMove;
+        return solution.nextMove();
+    }
+
+    /**
+     * Returns the next best move in search tree without consuming it, if there's no next move, returns -1.
+     * @return
+     */
+    public int peekMove() {
+        if(!hasNextMove()) return -1;
+        return solution.peekMove();
     }
 
     /**
@@ -85,7 +220,7 @@ public class SearchTree {
      * @return
      */
     public boolean hasNextMove() {
-        return !moves.isEmpty();
+        return solution != null && solution.hasNextMove();
     }
 
     /**
@@ -93,7 +228,48 @@ public class SearchTree {
      * @return
      */
     public int movesTried() {
-        return stateReached.size();
+        return closedSize;
+    }
+
+    /**
+     * Returns the number of nodes taken off the open set so far, safe to call while solve() runs on another thread.
+     * @return
+     */
+    public int getNodesExpanded() {
+        return nodesExpanded;
+    }
+
+    /**
+     * Returns the size of the open set, safe to call while solve() runs on another thread.
+     * @return
+     */
+    public int getOpenSize() {
+        return openSize;
+    }
+
+    /**
+     * Returns the size of the closed set, safe to call while solve() runs on another thread.
+     * @return
+     */
+    public int getClosedSize() {
+        return closedSize;
+    }
+
+    /**
+     * Returns the number of moves in the solution, or -1 while solve() has not finished.
+     * @return
+     */
+    public int getSolutionLength() {
+        Solution solution = this.solution;
+        return (solution == null) ? -1 : solution.length();
+    }
+
+    /**
+     * Returns whether the last solve() stopped because the node limit was reached, or ran out of nodes after pruning.
+     * @return
+     */
+    public boolean isLimitReached() {
+        return limitReached;
     }
 
     /**
@@ -109,6 +285,6 @@ public class SearchTree {
      * @return
      */
     public Board getBestMoveBoard() {
-        return new Board(moves.get(0).getState());
+        return new Board(solution.getFinalState());
     }
 }
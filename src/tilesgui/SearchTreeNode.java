@@ -1,17 +1,19 @@
 package tilesgui;
 
-import java.util.ArrayList;
-
 /**
  * Nodes are what are stored in the tilesgui.SearchTree.
- * Each node has a tilesgui.Board (represented as a string) as well as elements needed to connect Nodes to each other, as needed.
+ * Each node has a tilesgui.Board as well as elements needed to connect Nodes to each other, as needed.
+ * Nodes hash and compare equal by their canonical board, see tilesgui.Symmetry, so a board and its mirror are one state,
+ * unless the node is created with symmetric false for searches towards a goal that is not its own mirror.
  */
 public class SearchTreeNode implements Comparable<SearchTreeNode> {
-    private String state;
+    private final Board board;
+    private final boolean symmetric;
     private int value;
+    private int priority;
+    private int depth = 0;
     private int tileMoved = -1;
     private SearchTreeNode parent = null;
-    private ArrayList<SearchTreeNode> children = new ArrayList<>();
 
     /**
      * Initializes a node with serialized board and heuristic value of the board.
@@ -19,8 +21,35 @@ public class SearchTreeNode implements Comparable<SearchTreeNode> {
      * @param val
      */
     public SearchTreeNode(String state, int val) {
-        this.state = state;
+        this.board = new Board(state);
+        this.symmetric = true;
+        this.value = val;
+        this.priority = val;
+    }
+
+    /**
+     * Initializes a node from a board and its heuristic value, reusing the board's incrementally maintained hash.
+     * The node keeps the board itself, so it must not be moved afterwards.
+     * @param board
+     * @param val
+     */
+    public SearchTreeNode(Board board, int val) {
+        this(board, val, true);
+    }
+
+    /**
+     * Initializes a node from a board and its heuristic value. If symmetric, the node equals the node of the mirrored
+     * board, otherwise only the node of the same board.
+     * The node keeps the board itself, so it must not be moved afterwards.
+     * @param board
+     * @param val
+     * @param symmetric
+     */
+    public SearchTreeNode(Board board, int val, boolean symmetric) {
+        this.board = board;
+        this.symmetric = symmetric;
         this.value = val;
+        this.priority = val;
     }
 
     /**
@@ -30,8 +59,10 @@ public class SearchTreeNode implements Comparable<SearchTreeNode> {
      * @param move
      */
     public SearchTreeNode(String state, int val, int move){
-        this.state = state;
+        this.board = new Board(state);
+        this.symmetric = true;
         this.value = val;
+        this.priority = val;
         this.tileMoved = move;
     }
 
@@ -40,31 +71,48 @@ public class SearchTreeNode implements Comparable<SearchTreeNode> {
      * @return
      */
     public String getState() {
-        return state;
+        return board.toString();
     }
 
     /**
-     * Returns heuristic value of the board.
+     * Returns the board in the node. Copy it before moving tiles, see Board(Board).
      * @return
      */
-    public int getValue() {
-        return value;
+    public Board getBoard() {
+        return board;
     }
 
     /**
-     * Returns children of node.
+     * Returns heuristic value of the board.
      * @return
      */
-    public ArrayList<SearchTreeNode> getChildren() {
-        return children;
+    public int getValue() {
+        return value;
     }
 
     /**
-     * Sets parent of node.
+     * Sets parent of node, the node's depth is one more than its parent's.
      * @param parent
      */
     public void setParent(SearchTreeNode parent) {
         this.parent = parent;
+        this.depth = (parent == null) ? 0 : parent.depth + 1;
+    }
+
+    /**
+     * Returns number of moves from the root to the node.
+     * @return
+     */
+    public int getDepth() {
+        return depth;
+    }
+
+    /**
+     * Sets the priority nodes are ordered by, defaults to the heuristic value.
+     * @param priority
+     */
+    public void setPriority(int priority) {
+        this.priority = priority;
     }
 
     /**
@@ -93,6 +141,7 @@ public class SearchTreeNode implements Comparable<SearchTreeNode> {
 
     /**
      * compareTo function implemented for Comparable interface to allow usage in PriorityQueue.
+     * Orders by priority, breaking ties by heuristic value.
      * @param o
      * @return
      */
@@ -100,6 +149,33 @@ public class SearchTreeNode implements Comparable<SearchTreeNode> {
     public int compareTo(SearchTreeNode o) {
         if(o == null)
             return -1;
+        if(this.priority != o.priority)
+            return Integer.compare(this.priority, o.priority);
         return Integer.compare(this.value, o.value);
     }
+
+    /**
+     * Hashes on the canonical board's Zobrist hash, or the board's own if not symmetric, so sets of nodes never rehash
+     * the serialized board.
+     * @return
+     */
+    @Override
+    public int hashCode() {
+        return Long.hashCode(symmetric ? board.getCanonicalHash() : board.getHash());
+    }
+
+    /**
+     * Nodes are equal if they hold the same canonical board, or the same board if not symmetric. The tiles are only
+     * compared when the hashes match.
+     * @param o
+     * @return
+     */
+    @Override
+    public boolean equals(Object o) {
+        if(this == o) return true;
+        if(!(o instanceof SearchTreeNode)) return false;
+        SearchTreeNode other = (SearchTreeNode) o;
+        if(!symmetric) return board.equals(other.board);
+        return board.getCanonicalHash() == other.board.getCanonicalHash() && board.canonicalEquals(other.board);
+    }
 }
@@ -0,0 +1,86 @@
+package tilesgui;
+
+/**
+ * Compact path found by a tilesgui.SearchTree, stored as the tiles moved in order.
+ * Holding a solution does not keep any search nodes alive, so the search tree can be collected as soon as solve()
+ * returns while the moves are played back.
+ */
+public class Solution {
+    private final byte[] tilesMoved;
+    private final String initialState;
+    private final String finalState;
+    private final boolean solved;
+    private int nextMove = 0;
+
+    /**
+     * Initializes a solution that moves tilesMoved in order to get from initialState to finalState.
+     * @param tilesMoved
+     * @param initialState
+     * @param finalState
+     * @param solved
+     */
+    public Solution(byte[] tilesMoved, String initialState, String finalState, boolean solved) {
+        this.tilesMoved = tilesMoved;
+        this.initialState = initialState;
+        this.finalState = finalState;
+        this.solved = solved;
+    }
+
+    /**
+     * Returns the next move of the solution, if there's no next move, returns -1.
+     * @return
+     */
+    public int nextMove() {
+        if(!hasNextMove()) return -1;
+        return tilesMoved[nextMove++];
+    }
+
+    /**
+     * Returns the next move of the solution without consuming it, if there's no next move, returns -1.
+     * @return
+     */
+    public int peekMove() {
+        if(!hasNextMove()) return -1;
+        return tilesMoved[nextMove];
+    }
+
+    /**
+     * Returns whether or not the solution has a next move.
+     * @return
+     */
+    public boolean hasNextMove() {
+        return nextMove < tilesMoved.length;
+    }
+
+    /**
+     * Returns the total number of moves in the solution.
+     * @return
+     */
+    public int length() {
+        return tilesMoved.length;
+    }
+
+    /**
+     * Returns the serialized board the solution starts from.
+     * @return
+     */
+    public String getInitialState() {
+        return initialState;
+    }
+
+    /**
+     * Returns the serialized board the solution ends on.
+     * @return
+     */
+    public String getFinalState() {
+        return finalState;
+    }
+
+    /**
+     * Returns whether the solution ends on the solved board.
+     * @return
+     */
+    public boolean isSolved() {
+        return solved;
+    }
+}
@@ -0,0 +1,85 @@
+package tilesgui;
+
+import javafx.animation.*;
+import javafx.event.*;
+import javafx.scene.control.*;
+import javafx.util.Duration;
+
+/**
+ * Samples the counters a tilesgui.SearchTree publishes while it solves and shows them in a label.
+ * Sampling runs on the FX thread at a fixed low rate so the solver's loop is never polled or slowed down.
+ */
+public class SolverMetricsSampler {
+    private static final double SAMPLE_INTERVAL = 250;
+    private static final long BYTES_PER_MEGABYTE = 1024 * 1024;
+
+    private final Label metricsLabel;
+    private final Timeline sampler;
+    private SearchTree tree;
+    private long startTime;
+    private long lastSampleTime;
+    private int lastNodesExpanded;
+
+    /**
+     * Initializes a sampler that writes its samples to metricsLabel.
+     * @param metricsLabel
+     */
+    public SolverMetricsSampler(Label metricsLabel) {
+        this.metricsLabel = metricsLabel;
+        sampler = new Timeline(new KeyFrame(Duration.millis(SAMPLE_INTERVAL), new EventHandler<ActionEvent>() {
+            /**
+             * Handles sample Timeline event.
+             * @param event
+             */
+            @Override
+            public void handle(ActionEvent event) {
+                SolverMetricsSampler.this.sample();
+            }
+        }));
+        sampler.setCycleCount(Timeline.INDEFINITE);
+    }
+
+    /**
+     * Starts sampling tree, which is about to be solved.
+     * @param tree
+     */
+    public void start(SearchTree tree) {
+        this.tree = tree;
+        startTime = System.nanoTime();
+        lastSampleTime = startTime;
+        lastNodesExpanded = 0;
+        sample();
+        sampler.play();
+    }
+
+    /**
+     * Stops sampling and shows the final counters of the solve.
+     */
+    public void stop() {
+        sampler.stop();
+        if(tree != null) {
+            sample();
+        }
+    }
+
+    /**
+     * Reads the published counters and updates the label.
+     */
+    private void sample() {
+        long now = System.nanoTime();
+        int nodesExpanded = tree.getNodesExpanded();
+        double sampleSeconds = (now - lastSampleTime) / 1e9;
+        double nodesPerSecond = (sampleSeconds > 0) ? (nodesExpanded - lastNodesExpanded) / sampleSeconds : 0;
+        lastSampleTime = now;
+        lastNodesExpanded = nodesExpanded;
+
+        Runtime runtime = Runtime.getRuntime();
+        long heapUsed = (runtime.totalMemory() - runtime.freeMemory()) / BYTES_PER_MEGABYTE;
+        int solutionLength = tree.getSolutionLength();
+
+        metricsLabel.setText(String.format(
+                "Nodes/s: %.0f%nOpen: %d%nClosed: %d%nSolve Time: %d ms%nHeap Used: %d MB%nSolution Length: %s",
+                nodesPerSecond, tree.getOpenSize(), tree.getClosedSize(), (now - startTime) / 1000000, heapUsed,
+                (solutionLength < 0) ? "-" : Integer.toString(solutionLength)));
+    }
+}
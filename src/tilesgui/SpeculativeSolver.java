@@ -0,0 +1,193 @@
+package tilesgui;
+
+import java.util.concurrent.*;
+
+/**
+ * Solves the game board in the background while the user plays so Auto Solve can start from a ready plan.
+ * Planning runs on a single low priority daemon thread. A plan is reused as long as the user's moves follow it, and
+ * a plan that is still being computed is cancelled as soon as the board changes under it. The planning thread is a
+ * daemon, so it never keeps the application alive.
+ */
+public class SpeculativeSolver {
+    private final ExecutorService executor;
+    private final Heuristic heuristic;
+    private final int nodeLimit;
+    private Future<SearchTree> pending;
+    private SearchTree pendingTree;
+    private String pendingState;
+    private SearchTree plan;
+    private String planState;
+
+    /**
+     * Plan handed over by takePlan(), either solved already or still being solved on the planning thread.
+     */
+    public static class Plan {
+        private final SearchTree tree;
+        private final Future<SearchTree> result;
+
+        /**
+         * Initializes a plan for tree, which is solved once result is done, or already solved if result is null.
+         * @param tree
+         * @param result
+         */
+        private Plan(SearchTree tree, Future<SearchTree> result) {
+            this.tree = tree;
+            this.result = result;
+        }
+
+        /**
+         * Returns the search tree of the plan, it may still be solving.
+         * @return
+         */
+        public SearchTree getTree() {
+            return tree;
+        }
+
+        /**
+         * Returns whether the plan is solved already.
+         * @return
+         */
+        public boolean isReady() {
+            return result == null;
+        }
+
+        /**
+         * Waits until the plan is solved and returns its search tree.
+         * @return
+         * @throws InterruptedException
+         * @throws ExecutionException
+         */
+        public SearchTree await() throws InterruptedException, ExecutionException {
+            if (result != null) {
+                result.get();
+            }
+            return tree;
+        }
+
+        /**
+         * Cancels solving the plan.
+         */
+        public void cancel() {
+            if (result != null) {
+                result.cancel(true);
+            }
+        }
+    }
+
+    /**
+     * Initializes a speculative solver that orders boards by heuristic and keeps at most nodeLimit nodes per search.
+     * @param heuristic
+     * @param nodeLimit
+     */
+    public SpeculativeSolver(Heuristic heuristic, int nodeLimit) {
+        this.heuristic = heuristic;
+        this.nodeLimit = nodeLimit;
+        executor = Executors.newSingleThreadExecutor(new ThreadFactory() {
+            /**
+             * Creates the low priority planning thread.
+             * @param runnable
+             * @return
+             */
+            @Override
+            public Thread newThread(Runnable runnable) {
+                Thread thread = new Thread(runnable, "speculative-solver");
+                thread.setDaemon(true);
+                thread.setPriority(Thread.MIN_PRIORITY);
+                return thread;
+            }
+        });
+    }
+
+    /**
+     * Starts planning from board, discarding any previous plan.
+     * @param board
+     */
+    public synchronized void restart(Board board) {
+        cancel();
+        final SearchTree tree = new SearchTree(board);
+        tree.setHeuristic(heuristic);
+        tree.setNodeLimit(nodeLimit);
+        pendingTree = tree;
+        pendingState = board.toString();
+        pending = executor.submit(new Callable<SearchTree>() {
+            /**
+             * Solves the tree off the FX thread.
+             * @return
+             */
+            @Override
+            public SearchTree call() {
+                tree.solve();
+                return tree;
+            }
+        });
+    }
+
+    /**
+     * Updates the plan after the user moved tile move and reached board. If the move is the next move of the plan, the
+     * plan is kept, otherwise planning restarts from board.
+     * @param board
+     * @param move
+     */
+    public synchronized void update(Board board, int move) {
+        collectPending();
+        if (plan != null && plan.peekMove() == move) {
+            plan.nextMove();
+            planState = board.toString();
+        } else {
+            restart(board);
+        }
+    }
+
+    /**
+     * Hands the plan for board over to the caller, or returns null if board is not being planned. A plan that is still
+     * being solved is handed over as well, so the caller can wait on it instead of starting over.
+     * @param board
+     * @return
+     */
+    public synchronized Plan takePlan(Board board) {
+        collectPending();
+        String state = board.toString();
+        Plan ret = null;
+        if (plan != null && planState.equals(state)) {
+            ret = new Plan(plan, null);
+        } else if (pending != null && pendingState.equals(state)) {
+            ret = new Plan(pendingTree, pending);
+            pending = null;
+        }
+        cancel();
+        return ret;
+    }
+
+    /**
+     * Cancels planning and discards the current plan.
+     */
+    public synchronized void cancel() {
+        if (pending != null) {
+            pending.cancel(true);
+        }
+        pending = null;
+        pendingTree = null;
+        pendingState = null;
+        plan = null;
+        planState = null;
+    }
+
+    /**
+     * Moves a finished pending plan into plan.
+     */
+    private void collectPending() {
+        if (pending == null || !pending.isDone()) {
+            return;
+        }
+        try {
+            plan = pending.get();
+            planState = pendingState;
+        } catch (InterruptedException | ExecutionException | CancellationException e) {
+            plan = null;
+            planState = null;
+        }
+        pending = null;
+        pendingTree = null;
+        pendingState = null;
+    }
+}
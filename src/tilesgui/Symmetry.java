@@ -0,0 +1,29 @@
+package tilesgui;
+
+/**
+ * Reflection of boards about the main diagonal, with tiles relabeled so the standard goal maps onto itself.
+ * A board and its mirror are the same distance from the goal and mirrored moves solve the mirrored board, so tables,
+ * caches and closed sets only need to store one of the two, the canonical board. Mirroring is its own inverse.
+ */
+public class Symmetry {
+    /**
+     * Returns the index of the cell index is reflected onto on a dim x dim board.
+     * @param index
+     * @param dim
+     * @return
+     */
+    public static int mirrorIndex(int index, int dim) {
+        return (index % dim) * dim + index / dim;
+    }
+
+    /**
+     * Returns the label tile is relabeled to in the mirrored board, the label whose goal cell is the reflection of
+     * tile's goal cell.
+     * @param tile
+     * @param dim
+     * @return
+     */
+    public static int mirrorTile(int tile, int dim) {
+        return (tile == 0) ? 0 : mirrorIndex(tile - 1, dim) + 1;
+    }
+}
@@ -0,0 +1,208 @@
+package tilesgui;
+
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.HashMap;
+
+/**
+ * Precomputed walking distance table for boards of one size.
+ * A walking distance state counts, for every row of the board, how many tiles belong in each goal row. The distance of
+ * a state is the fewest vertical moves needed to bring every tile to its goal row, found once by a BFS from the goal.
+ * Columns use the same table since the goal is symmetric, so a board's heuristic is the row distance plus the column
+ * distance. States are kept in a sorted array with transition indices so boards can update their state incrementally.
+ */
+public class WalkingDistance {
+    public static final int UP = 0;
+    public static final int DOWN = 1;
+    private static final int BITS_PER_COUNT = 3;
+    private static final int MAX_DIM = 4;
+    private static final HashMap<Integer, WalkingDistance> tables = new HashMap<>();
+
+    private final int dim;
+    private final long[] keys;
+    private final byte[] distance;
+    private final int[] next;
+
+    /**
+     * Returns the table for n x n boards, building it on first use.
+     * @param n
+     * @return
+     */
+    public static synchronized WalkingDistance getTable(int n) {
+        WalkingDistance table = tables.get(n);
+        if(table == null) {
+            table = new WalkingDistance(n);
+            tables.put(n, table);
+        }
+        return table;
+    }
+
+    /**
+     * Builds the table for n x n boards with a BFS from the goal state.
+     * @param n
+     */
+    private WalkingDistance(int n) {
+        if(n < 2 || n > MAX_DIM) {
+            throw new IllegalArgumentException("Walking distance is only supported for 2x2 to 4x4 boards");
+        }
+        dim = n;
+
+        HashMap<Long, Byte> reached = new HashMap<>();
+        ArrayDeque<Long> queue = new ArrayDeque<>();
+        long goal = getGoalKey();
+        reached.put(goal, (byte) 0);
+        queue.add(goal);
+        while(!queue.isEmpty()) {
+            long key = queue.poll();
+            byte nextDistance = (byte) (reached.get(key) + 1);
+            for(int direction = UP; direction <= DOWN; direction++) {
+                for(int group = 0; group < dim; group++) {
+                    long child = move(key, direction, group);
+                    if(child >= 0 && !reached.containsKey(child)) {
+                        reached.put(child, nextDistance);
+                        queue.add(child);
+                    }
+                }
+            }
+        }
+
+        keys = new long[reached.size()];
+        int i = 0;
+        for(long key : reached.keySet()) {
+            keys[i++] = key;
+        }
+        Arrays.sort(keys);
+
+        distance = new byte[keys.length];
+        next = new int[keys.length * 2 * dim];
+        for(i = 0; i < keys.length; i++) {
+            distance[i] = reached.get(keys[i]);
+            for(int direction = UP; direction <= DOWN; direction++) {
+                for(int group = 0; group < dim; group++) {
+                    long child = move(keys[i], direction, group);
+                    next[(i * 2 + direction) * dim + group] = (child < 0) ? -1 : Arrays.binarySearch(keys, child);
+                }
+            }
+        }
+    }
+
+    /**
+     * Returns the number of states in the table.
+     * @return
+     */
+    public int size() {
+        return keys.length;
+    }
+
+    /**
+     * Returns the index of the state where counts[line][group] tiles of each goal group sit in each line and the
+     * blank is in blankLine.
+     * @param counts
+     * @param blankLine
+     * @return
+     */
+    public int getIndex(int[][] counts, int blankLine) {
+        return Arrays.binarySearch(keys, encode(counts, blankLine));
+    }
+
+    /**
+     * Returns the walking distance of the state at index.
+     * @param index
+     * @return
+     */
+    public int getDistance(int index) {
+        return distance[index];
+    }
+
+    /**
+     * Returns the state reached when the blank moves in direction and swaps with a tile of goal group group, or -1 if
+     * there is no such tile.
+     * @param index
+     * @param direction
+     * @param group
+     * @return
+     */
+    public int getNextIndex(int index, int direction, int group) {
+        return next[(index * 2 + direction) * dim + group];
+    }
+
+    /**
+     * Returns the key of the goal state: every line holds its own tiles and the blank is in the last line.
+     * @return
+     */
+    private long getGoalKey() {
+        int[][] counts = new int[dim][dim];
+        for(int line = 0; line < dim; line++) {
+            counts[line][line] = (line == dim - 1) ? dim - 1 : dim;
+        }
+        return encode(counts, dim - 1);
+    }
+
+    /**
+     * Returns the key after moving the blank in direction, swapping it with a tile of goal group group, or -1 if the
+     * move is impossible.
+     * @param key
+     * @param direction
+     * @param group
+     * @return
+     */
+    private long move(long key, int direction, int group) {
+        int blankLine = decodeBlankLine(key);
+        int target = (direction == UP) ? blankLine - 1 : blankLine + 1;
+        if(target < 0 || target >= dim) {
+            return -1;
+        }
+        int[][] counts = decode(key);
+        if(counts[target][group] == 0) {
+            return -1;
+        }
+        counts[target][group]--;
+        counts[blankLine][group]++;
+        return encode(counts, target);
+    }
+
+    /**
+     * Packs a state into a long. The last group of each line is left out since it follows from the line's size.
+     * @param counts
+     * @param blankLine
+     * @return
+     */
+    private long encode(int[][] counts, int blankLine) {
+        long key = blankLine;
+        for(int line = 0; line < dim; line++) {
+            for(int group = 0; group < dim - 1; group++) {
+                key = (key << BITS_PER_COUNT) | counts[line][group];
+            }
+        }
+        return key;
+    }
+
+    /**
+     * Unpacks the counts of a state packed by encode().
+     * @param key
+     * @return
+     */
+    private int[][] decode(long key) {
+        int[][] counts = new int[dim][dim];
+        int blankLine = decodeBlankLine(key);
+        for(int line = dim - 1; line >= 0; line--) {
+            int remaining = (line == blankLine) ? dim - 1 : dim;
+            for(int group = dim - 2; group >= 0; group--) {
+                counts[line][group] = (int) (key & ((1 << BITS_PER_COUNT) - 1));
+                key >>>= BITS_PER_COUNT;
+                remaining -= counts[line][group];
+            }
+            counts[line][dim - 1] = remaining;
+        }
+        return counts;
+    }
+
+    /**
+     * Returns the line of the blank in a state packed by encode().
+     * @param key
+     * @return
+     */
+    private int decodeBlankLine(long key) {
+        return (int) (key >>> (BITS_PER_COUNT * dim * (dim - 1)));
+    }
+}